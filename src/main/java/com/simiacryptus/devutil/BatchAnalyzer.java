@@ -0,0 +1,325 @@
+/*
+ * Copyright (c) 2019 by Andrew Charneski.
+ *
+ * The author licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.simiacryptus.devutil;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.project.DependencyResolutionResult;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.DefaultPlexusContainer;
+import org.codehaus.plexus.PlexusContainerException;
+import org.codehaus.plexus.component.repository.exception.ComponentLookupException;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+public class BatchAnalyzer {
+  private static final Logger logger = LoggerFactory.getLogger(BatchAnalyzer.class);
+  @Nonnull
+  public final ForkJoinPool pool;
+  @Nonnull
+  public final ExecutorService ioExecutor;
+  @Nonnull
+  public final DefaultPlexusContainer container;
+  @Nonnull
+  public final DefaultRepositorySystemSession session;
+  @Nonnull
+  final MemoryBudget memoryBudget;
+  private double parseMemoryFactor = 32.0;
+  private int maxInFlight;
+
+  public BatchAnalyzer(final int parallelism, final int memoryBudgetMB) throws IOException, PlexusContainerException, ComponentLookupException {
+    this(parallelism, parallelism, memoryBudgetMB);
+  }
+
+  public BatchAnalyzer(final int parallelism, final int ioParallelism, final int memoryBudgetMB) throws IOException, PlexusContainerException, ComponentLookupException {
+    if (parallelism < 1) throw new IllegalArgumentException("parallelism: " + parallelism);
+    if (ioParallelism < 1) throw new IllegalArgumentException("ioParallelism: " + ioParallelism);
+    this.memoryBudget = new MemoryBudget(memoryBudgetMB);
+    this.pool = new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+    this.ioExecutor = Executors.newFixedThreadPool(ioParallelism);
+    this.maxInFlight = 2 * parallelism;
+    this.container = SimpleMavenProject.newPlexusContainer();
+    this.session = SimpleMavenProject.newSession(container);
+  }
+
+  public static void main(@Nonnull String[] args) throws Exception {
+    List<String> roots = readRoots(args);
+    int parallelism = Integer.getInteger("batch.parallelism", Runtime.getRuntime().availableProcessors());
+    int ioParallelism = Integer.getInteger("batch.ioParallelism", parallelism);
+    int memoryBudgetMB = Integer.getInteger("batch.memoryMB", (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / (2 * 1024 * 1024)));
+    BatchAnalyzer analyzer = new BatchAnalyzer(parallelism, ioParallelism, memoryBudgetMB);
+    List<String> failed;
+    try {
+      failed = analyzer.run(roots, (root, files) -> {
+        logger.info(String.format("Project %s: %d files", root, files.size()));
+        SymbolTable symbols = new SymbolTable();
+        files.forEach((file, ast) -> {
+          MDC.put("file", file);
+          try {
+            logger.info("File: " + file);
+            DependencyScanner.logTree(ast, symbols);
+          } finally {
+            MDC.remove("file");
+          }
+        });
+      }).join();
+    } finally {
+      analyzer.close();
+    }
+    if (!failed.isEmpty()) {
+      logger.error(String.format("%d of %d projects failed: %s", failed.size(), roots.size(), failed));
+      System.exit(1);
+    }
+  }
+
+  @Nonnull
+  public static List<String> readRoots(@Nonnull final String[] args) throws IOException {
+    ArrayList<String> roots = new ArrayList<>();
+    for (final String arg : args) {
+      if (arg.startsWith("@")) {
+        FileUtils.readLines(new File(arg.substring(1)), Charset.defaultCharset()).stream()
+            .map(String::trim)
+            .filter(x -> !x.isEmpty() && !x.startsWith("#"))
+            .forEach(roots::add);
+      } else {
+        roots.add(arg);
+      }
+    }
+    return roots;
+  }
+
+  @Nonnull
+  public static String getResolutionKey(@Nonnull final MavenProject project) {
+    StringBuilder sb = new StringBuilder();
+    appendDependencies(sb, project.getDependencies());
+    DependencyManagement dependencyManagement = project.getDependencyManagement();
+    sb.append("management\n");
+    if (null != dependencyManagement) appendDependencies(sb, dependencyManagement.getDependencies());
+    sb.append("repositories\n");
+    for (final ArtifactRepository repository : project.getRemoteArtifactRepositories()) {
+      sb.append(repository.getId()).append('=').append(repository.getUrl()).append('\n');
+    }
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-1").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+      return String.format("%s:%s:%s@%s", project.getGroupId(), project.getArtifactId(), project.getVersion(), new BigInteger(1, digest).toString(16));
+    } catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static void appendDependencies(@Nonnull final StringBuilder sb, @Nonnull final List<Dependency> dependencies) {
+    for (final Dependency dependency : dependencies) {
+      sb.append(dependency.getManagementKey()).append(':').append(dependency.getVersion())
+          .append(':').append(dependency.getScope()).append(':').append(dependency.isOptional())
+          .append(':').append(dependency.getSystemPath());
+      for (final Exclusion exclusion : dependency.getExclusions()) {
+        sb.append('!').append(exclusion.getGroupId()).append(':').append(exclusion.getArtifactId());
+      }
+      sb.append('\n');
+    }
+  }
+
+  /**
+   * Loads, resolves and parses each project root, passing the parsed files to the consumer as each project finishes.
+   * Loading and resolution run on the I/O executor; parsing and the consumer run on the pool once the project's share
+   * of the memory budget has been reserved, and that reservation is held until the consumer returns. At most
+   * maxInFlight projects are admitted at a time, and resolutions are shared between projects of the same run whose
+   * effective dependencies, dependency management and repositories match.
+   * <p>
+   * The consumer is called concurrently from pool threads and must be thread-safe. Output from different projects
+   * interleaves; the "project" MDC key is set to the root for the duration of each call.
+   *
+   * @param roots    the project root directories
+   * @param consumer receives each project root and its parsed files
+   * @return a future for the roots which failed to load, resolve or parse
+   */
+  @Nonnull
+  public CompletableFuture<List<String>> run(@Nonnull final Collection<String> roots, @Nonnull final BiConsumer<String, HashMap<String, CompilationUnit>> consumer) {
+    Batch batch = new Batch(roots, consumer);
+    if (roots.isEmpty()) batch.result.complete(new ArrayList<>());
+    for (int i = 0; i < maxInFlight; i++) {
+      batch.admit();
+    }
+    return batch.result;
+  }
+
+  @Nonnull
+  protected CompletableFuture<Void> analyze(@Nonnull final Batch batch, final String root) {
+    return CompletableFuture.supplyAsync(() -> load(root), ioExecutor)
+        .thenCompose(mavenProject -> batch.resolve(getResolutionKey(mavenProject.project), mavenProject::resolve)
+            .thenComposeAsync(resolution -> {
+              Collection<File> sourceFiles = mavenProject.getSourceFiles();
+              int permits = estimateParseMB(sourceFiles);
+              return memoryBudget.reserve(permits)
+                  .thenRunAsync(() -> parse(mavenProject, resolution, sourceFiles, permits, batch.consumer), pool)
+                  .whenComplete((x, e) -> memoryBudget.release(permits));
+            }, ioExecutor));
+  }
+
+  public int estimateParseMB(@Nonnull final Collection<File> sourceFiles) {
+    long sourceBytes = sourceFiles.stream().mapToLong(File::length).sum();
+    long estimate = (long) Math.ceil(sourceBytes * parseMemoryFactor / (1024 * 1024));
+    return (int) Math.max(1, Math.min(memoryBudget.capacityMB, estimate));
+  }
+
+  public double getParseMemoryFactor() {
+    return parseMemoryFactor;
+  }
+
+  @Nonnull
+  public BatchAnalyzer setParseMemoryFactor(final double parseMemoryFactor) {
+    this.parseMemoryFactor = parseMemoryFactor;
+    return this;
+  }
+
+  public int getMaxInFlight() {
+    return maxInFlight;
+  }
+
+  @Nonnull
+  public BatchAnalyzer setMaxInFlight(final int maxInFlight) {
+    if (maxInFlight < 1) throw new IllegalArgumentException("maxInFlight: " + maxInFlight);
+    this.maxInFlight = maxInFlight;
+    return this;
+  }
+
+  public void close() {
+    ioExecutor.shutdown();
+    pool.shutdown();
+    container.dispose();
+  }
+
+  @Nonnull
+  private SimpleMavenProject load(final String root) {
+    try {
+      return new SimpleMavenProject(root, container, session);
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void parse(@Nonnull final SimpleMavenProject mavenProject, @Nonnull final DependencyResolutionResult resolution, @Nonnull final Collection<File> sourceFiles, final int permits, @Nonnull final BiConsumer<String, HashMap<String, CompilationUnit>> consumer) {
+    String root = mavenProject.projectRoot;
+    MDC.put("project", root);
+    try {
+      logger.debug(String.format("Parsing %s (%s MB reserved, %s MB free)", root, permits, memoryBudget.getAvailableMB()));
+      consumer.accept(root, mavenProject.parse(resolution, sourceFiles));
+    } finally {
+      MDC.remove("project");
+    }
+  }
+
+  public class Batch {
+    @Nonnull
+    final CompletableFuture<List<String>> result = new CompletableFuture<>();
+    @Nonnull
+    final BiConsumer<String, HashMap<String, CompilationUnit>> consumer;
+    @Nonnull
+    private final Iterator<String> pending;
+    @Nonnull
+    private final AtomicInteger remaining;
+    @Nonnull
+    private final AtomicInteger admissions = new AtomicInteger();
+    @Nonnull
+    private final Queue<String> failed = new ConcurrentLinkedQueue<>();
+    @Nonnull
+    private final ConcurrentHashMap<String, CompletableFuture<DependencyResolutionResult>> resolutions = new ConcurrentHashMap<>();
+
+    Batch(@Nonnull final Collection<String> roots, @Nonnull final BiConsumer<String, HashMap<String, CompilationUnit>> consumer) {
+      this.pending = new ArrayList<>(roots).iterator();
+      this.consumer = consumer;
+      this.remaining = new AtomicInteger(roots.size());
+    }
+
+    @Nonnull
+    public CompletableFuture<DependencyResolutionResult> resolve(@Nonnull final String key, @Nonnull final Callable<DependencyResolutionResult> resolver) {
+      CompletableFuture<DependencyResolutionResult> future = new CompletableFuture<>();
+      CompletableFuture<DependencyResolutionResult> existing = resolutions.putIfAbsent(key, future);
+      if (null != existing) return existing;
+      try {
+        future.complete(resolver.call());
+      } catch (Throwable e) {
+        resolutions.remove(key, future);
+        future.completeExceptionally(e);
+      }
+      return future;
+    }
+
+    void admit() {
+      // Trampoline so that projects completing synchronously do not recurse through admitNext
+      if (0 != admissions.getAndIncrement()) return;
+      do {
+        admitNext();
+      } while (0 != admissions.decrementAndGet());
+    }
+
+    private void admitNext() {
+      final String root;
+      synchronized (pending) {
+        if (!pending.hasNext()) return;
+        root = pending.next();
+      }
+      CompletableFuture<Void> future;
+      try {
+        future = analyze(this, root);
+      } catch (Throwable e) {
+        future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+      }
+      future.whenComplete((x, e) -> finish(root, e));
+    }
+
+    private void finish(final String root, final Throwable error) {
+      try {
+        if (null != error) {
+          failed.add(root);
+          logger.warn("Error analyzing " + root, error);
+        }
+      } finally {
+        if (0 == remaining.decrementAndGet()) {
+          resolutions.clear();
+          result.complete(new ArrayList<>(failed));
+        } else {
+          admit();
+        }
+      }
+    }
+  }
+
+}
@@ -25,7 +25,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
-import javax.annotation.Nullable;
 import java.util.Arrays;
 import java.util.Optional;
 import java.util.Stack;
@@ -35,13 +34,18 @@ public class DependencyScanner {
 
   public static void main(@Nonnull String[] args) throws Exception {
     String root = args.length == 0 ? "H:\\SimiaCryptus\\MindsEye" : args[0];
+    SymbolTable symbols = new SymbolTable();
     SimpleMavenProject.loadProject(root).forEach((file, ast) -> {
       logger.info("File: " + file);
-      logTree(ast);
+      logTree(ast, symbols);
     });
   }
 
   public static void logTree(@Nonnull final CompilationUnit ast) {
+    logTree(ast, new SymbolTable());
+  }
+
+  public static void logTree(@Nonnull final CompilationUnit ast, @Nonnull final SymbolTable symbols) {
     Arrays.stream(ast.getProblems()).forEach(problem -> {
       logger.warn("  ERR: " + problem.getMessage());
     });
@@ -54,27 +58,29 @@ public class DependencyScanner {
       String indent = "  ";
       @Nonnull
       Stack<ASTNode> stack = new Stack<>();
-      String currentCodeContext = "";
+      SymbolTable.Symbol currentCodeContext = null;
 
       @Override
       public void preVisit(final ASTNode node) {
         indent += "  ";
-        if (node instanceof Name) {
-          Name name = (Name) node;
-          IBinding binding = name.resolveBinding();
-          String bindingString;
-          if (binding == null) {
-            bindingString = "???";
-          } else if (binding instanceof ITypeBinding) {
-            bindingString = ((ITypeBinding) binding).getBinaryName();
+        if (logger.isDebugEnabled()) {
+          if (node instanceof Name) {
+            Name name = (Name) node;
+            IBinding binding = name.resolveBinding();
+            String bindingString;
+            if (binding == null) {
+              bindingString = "???";
+            } else if (binding instanceof ITypeBinding) {
+              bindingString = ((ITypeBinding) binding).getBinaryName();
+            } else {
+              bindingString = binding.toString();
+            }
+            logger.debug(String.format("  %s%s%s = %s (%s: %s)", node.getStartPosition(), indent,
+                node.getClass().getSimpleName(), name.getFullyQualifiedName(),
+                null == binding ? null : binding.getClass().getSimpleName(), bindingString));
           } else {
-            bindingString = binding.toString();
+            logger.debug(String.format("  %s%s%s", node.getStartPosition(), indent, node.getClass().getSimpleName()));
           }
-          logger.debug(String.format("  %s%s%s = %s (%s: %s)", node.getStartPosition(), indent,
-              node.getClass().getSimpleName(), name.getFullyQualifiedName(),
-              null == binding ? null : binding.getClass().getSimpleName(), bindingString));
-        } else {
-          logger.debug(String.format("  %s%s%s", node.getStartPosition(), indent, node.getClass().getSimpleName()));
         }
         stack.push(node);
       }
@@ -91,30 +97,27 @@ public class DependencyScanner {
         IBinding binding = node.resolveBinding();
         if (binding instanceof IMethodBinding) {
           if (!(node.getParent() instanceof MethodDeclaration)) {
-            String ref = toStringMethod((IMethodBinding) binding);
-            logger.info(String.format("   Ref %s", ref));
+            int ref = symbols.internMethod((IMethodBinding) binding);
+            logger.info("   Ref {}", symbols.get(ref));
           }
         } else if (binding instanceof IVariableBinding) {
-          IVariableBinding variableBinding = (IVariableBinding) binding;
-          String ref = toStringVar(variableBinding);
-          if (null != ref) logger.info(String.format("   Ref %s", ref));
+          int ref = symbols.internVariable((IVariableBinding) binding);
+          if (SymbolTable.UNRESOLVED != ref) logger.info("   Ref {}", symbols.get(ref));
         }
         return super.visit(node);
       }
 
       @Override
       public boolean visit(@Nonnull final ConstructorInvocation node) {
-        IBinding binding = node.resolveConstructorBinding();
-        String ref = toStringMethod((IMethodBinding) binding);
-        logger.info(String.format("   Ref %s", ref));
+        int ref = symbols.internMethod(node.resolveConstructorBinding());
+        logger.info("   Ref {}", symbols.get(ref));
         return super.visit(node);
       }
 
       @Override
       public boolean visit(@Nonnull final SuperConstructorInvocation node) {
-        IMethodBinding binding = node.resolveConstructorBinding();
-        String ref = toStringMethod(binding);
-        logger.info(String.format("   Ref %s", ref));
+        int ref = symbols.internMethod(node.resolveConstructorBinding());
+        logger.info("   Ref {}", symbols.get(ref));
         return super.visit(node);
       }
 
@@ -127,8 +130,7 @@ public class DependencyScanner {
           if (null == variableBinding) {
             logger.info(String.format("  UNRESOLVED Field %s", node));
           } else {
-            ITypeBinding declaringClass = variableBinding.getDeclaringClass();
-            currentCodeContext = String.format("%s::%s", null == declaringClass ? null : declaringClass.getBinaryName(), variableBinding.getName());
+            currentCodeContext = symbols.get(symbols.internVariable(variableBinding));
             logger.info(String.format("  Field %s %s", currentCodeContext,
                 (!useJavaDoc || null == javadoc ? node : javadoc).toString().replaceAll("\n", "\n    ").trim()));
           }
@@ -140,7 +142,7 @@ public class DependencyScanner {
       public boolean visit(@Nonnull final MethodDeclaration node) {
         Javadoc javadoc = node.getJavadoc();
         IMethodBinding methodBinding = node.resolveBinding();
-        currentCodeContext = toStringMethod(methodBinding);
+        currentCodeContext = symbols.get(symbols.internMethod(methodBinding));
         logger.info(String.format("  Method %s %s", currentCodeContext,
             (!useJavaDoc || null == javadoc ? node : javadoc).toString().replaceAll("\n", "\n    ").trim()));
         return super.visit(node);
@@ -148,34 +150,4 @@ public class DependencyScanner {
     });
   }
 
-
-  private static String toStringMethod(@Nullable final IMethodBinding methodBinding) {
-    final String symbolStr;
-    if (null != methodBinding) {
-      ITypeBinding[] parameterTypes = methodBinding.getParameterTypes();
-      String params = null == parameterTypes ? "null" : Arrays.stream(parameterTypes).map(x -> toStringType(x)).map(x -> null == x ? "null" : x).reduce((a, b) -> a + "," + b).orElse("");
-      String name = methodBinding.getDeclaringClass().getBinaryName() + "::" + methodBinding.getName();
-      symbolStr = String.format("%s(%s)", name, params);
-    } else {
-      symbolStr = "???";
-    }
-    return symbolStr;
-  }
-
-
-  private static String toStringType(@Nullable final ITypeBinding x) {
-    if (null == x) return "null";
-    else if (x.isPrimitive()) return x.getName();
-    else if (x.isArray()) return toStringType(x.getElementType()) + "[]";
-    else return x.getBinaryName();
-  }
-
-  @Nullable
-  private static String toStringVar(@Nullable final IVariableBinding iVariableBinding) {
-    if (null == iVariableBinding) return null;
-    ITypeBinding declaringClass = iVariableBinding.getDeclaringClass();
-    if (null == declaringClass) return null;
-    return declaringClass.getBinaryName() + "::" + iVariableBinding.getName();
-  }
-
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2019 by Andrew Charneski.
+ *
+ * The author licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.simiacryptus.devutil;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A first-come, first-served pool of megabytes which hands out reservations as futures instead of blocking threads.
+ */
+class MemoryBudget {
+  public final int capacityMB;
+  @Nonnull
+  private final Queue<Reservation> waiting = new ArrayDeque<>();
+  private int availableMB;
+
+  MemoryBudget(final int capacityMB) {
+    if (capacityMB < 1) throw new IllegalArgumentException("capacityMB: " + capacityMB);
+    this.capacityMB = capacityMB;
+    this.availableMB = capacityMB;
+  }
+
+  @Nonnull
+  public CompletableFuture<Void> reserve(final int megabytes) {
+    if (megabytes < 1 || megabytes > capacityMB) throw new IllegalArgumentException("megabytes: " + megabytes);
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    synchronized (this) {
+      if (!waiting.isEmpty() || availableMB < megabytes) {
+        waiting.add(new Reservation(megabytes, future));
+        return future;
+      }
+      availableMB -= megabytes;
+    }
+    future.complete(null);
+    return future;
+  }
+
+  public void release(final int megabytes) {
+    List<CompletableFuture<Void>> granted = new ArrayList<>();
+    synchronized (this) {
+      availableMB += megabytes;
+      if (availableMB > capacityMB) throw new IllegalStateException("Released more than reserved");
+      while (!waiting.isEmpty() && waiting.peek().megabytes <= availableMB) {
+        Reservation reservation = waiting.poll();
+        availableMB -= reservation.megabytes;
+        granted.add(reservation.future);
+      }
+    }
+    granted.forEach(future -> future.complete(null));
+  }
+
+  public synchronized int getAvailableMB() {
+    return availableMB;
+  }
+
+  public synchronized int getWaiting() {
+    return waiting.size();
+  }
+
+  private static class Reservation {
+    final int megabytes;
+    @Nonnull
+    final CompletableFuture<Void> future;
+
+    Reservation(final int megabytes, @Nonnull final CompletableFuture<Void> future) {
+      this.megabytes = megabytes;
+      this.future = future;
+    }
+  }
+}
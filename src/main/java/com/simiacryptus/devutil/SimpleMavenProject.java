@@ -67,14 +67,32 @@ public class SimpleMavenProject {
   public final String projectRoot;
 
   public SimpleMavenProject(final String projectRoot) throws IOException, PlexusContainerException, ComponentLookupException, ProjectBuildingException {
+    this(projectRoot, newPlexusContainer());
+  }
+
+  private SimpleMavenProject(final String projectRoot, @Nonnull final DefaultPlexusContainer container) throws ComponentLookupException, ProjectBuildingException {
+    this(projectRoot, container, newSession(container));
+  }
+
+  public SimpleMavenProject(final String projectRoot, @Nonnull final DefaultPlexusContainer container, @Nonnull final DefaultRepositorySystemSession session) throws ComponentLookupException, ProjectBuildingException {
     this.projectRoot = projectRoot;
+    this.container = container;
+    this.session = session;
+    this.project = getMavenProject(container, session);
+  }
+
+  @Nonnull
+  public static DefaultPlexusContainer newPlexusContainer() throws IOException, PlexusContainerException {
+    return getPlexusContainer(repositoryLocation);
+  }
+
+  @Nonnull
+  public static DefaultRepositorySystemSession newSession(@Nonnull final DefaultPlexusContainer container) throws ComponentLookupException {
     Map<Object, Object> configProps = new LinkedHashMap<>();
     configProps.put(ConfigurationProperties.USER_AGENT, "Maven+SimiaCryptus");
     configProps.put(ConfigurationProperties.INTERACTIVE, false);
     configProps.putAll(System.getProperties());
-    this.container = getPlexusContainer(repositoryLocation);
-    this.session = getSession(repositoryLocation, false, configProps, container);
-    this.project = getMavenProject(container, session);
+    return getSession(repositoryLocation, false, configProps, container);
   }
 
   public static void main(@Nonnull String[] args) throws Exception {
@@ -148,6 +166,16 @@ public class SimpleMavenProject {
 
   @Nonnull
   public final HashMap<String, CompilationUnit> parse() throws ComponentLookupException, DependencyResolutionException {
+    return parse(resolve());
+  }
+
+  @Nonnull
+  public final HashMap<String, CompilationUnit> parse(@Nonnull final DependencyResolutionResult resolution) {
+    return parse(resolution, getSourceFiles());
+  }
+
+  @Nonnull
+  public final HashMap<String, CompilationUnit> parse(@Nonnull final DependencyResolutionResult resolution, @Nonnull final Collection<File> sourceFiles) {
     ASTParser astParser = ASTParser.newParser(AST.JLS9);
     astParser.setKind(ASTParser.K_EXPRESSION);
     astParser.setResolveBindings(true);
@@ -155,7 +183,7 @@ public class SimpleMavenProject {
     compilerOptions.put(CompilerOptions.OPTION_Source, CompilerOptions.versionFromJdkLevel(ClassFileConstants.JDK1_8));
     compilerOptions.put(CompilerOptions.OPTION_DocCommentSupport, CompilerOptions.ENABLED);
     astParser.setCompilerOptions(compilerOptions);
-    String[] classpathEntries = resolve().getDependencies().stream().map(x -> x.getArtifact().getFile().getAbsolutePath()).toArray(i -> new String[i]);
+    String[] classpathEntries = resolution.getDependencies().stream().map(x -> x.getArtifact().getFile().getAbsolutePath()).toArray(i -> new String[i]);
     String[] sourcepathEntries = Stream.concat(
         project.getTestCompileSourceRoots().stream(),
         project.getCompileSourceRoots().stream()
@@ -163,7 +191,7 @@ public class SimpleMavenProject {
     astParser.setEnvironment(classpathEntries, sourcepathEntries, null, true);
     HashMap<String, CompilationUnit> results = new HashMap<>();
     astParser.createASTs(
-        FileUtils.listFiles(new File(projectRoot), new String[]{"java"}, true).stream().map(x -> x.getAbsolutePath()).toArray(i -> new String[i]),
+        sourceFiles.stream().map(x -> x.getAbsolutePath()).toArray(i -> new String[i]),
         null,
         new String[]{},
         new FileASTRequestor() {
@@ -178,6 +206,16 @@ public class SimpleMavenProject {
     return results;
   }
 
+  @Nonnull
+  public Collection<File> getSourceFiles() {
+    return FileUtils.listFiles(new File(projectRoot), new String[]{"java"}, true);
+  }
+
+  @Nonnull
+  public String getCoordinates() {
+    return String.format("%s:%s:%s", project.getGroupId(), project.getArtifactId(), project.getVersion());
+  }
+
   public DependencyResolutionResult resolve() throws ComponentLookupException, DependencyResolutionException {
     return container.lookup(ProjectDependenciesResolver.class).resolve(new DefaultDependencyResolutionRequest().setRepositorySession(session).setMavenProject(project));
   }
@@ -189,7 +227,7 @@ public class SimpleMavenProject {
   }
 
   @Nonnull
-  private DefaultRepositorySystemSession getSession(final File repositoryLocation, final boolean isOffline, final Map<Object, Object> configProps, @Nonnull final DefaultPlexusContainer container) throws ComponentLookupException {
+  private static DefaultRepositorySystemSession getSession(final File repositoryLocation, final boolean isOffline, final Map<Object, Object> configProps, @Nonnull final DefaultPlexusContainer container) throws ComponentLookupException {
     DefaultRepositorySystemSession session = MavenRepositorySystemUtils.newSession();
     session.setConfigProperties(configProps);
     session.setCache(new DefaultRepositoryCache());
@@ -202,7 +240,7 @@ public class SimpleMavenProject {
   }
 
   @Nonnull
-  private DefaultPlexusContainer getPlexusContainer(@Nonnull final File repositoryLocation) throws IOException, PlexusContainerException {
+  private static DefaultPlexusContainer getPlexusContainer(@Nonnull final File repositoryLocation) throws IOException, PlexusContainerException {
     DefaultRepositoryLayout defaultRepositoryLayout = new DefaultRepositoryLayout();
     ArtifactRepositoryPolicy repositoryPolicy = new ArtifactRepositoryPolicy(true, ArtifactRepositoryPolicy.UPDATE_POLICY_NEVER, ArtifactRepositoryPolicy.CHECKSUM_POLICY_WARN);
     String url = "file://" + repositoryLocation.getCanonicalPath();
@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2019 by Andrew Charneski.
+ *
+ * The author licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.simiacryptus.devutil;
+
+import org.eclipse.jdt.core.dom.IBinding;
+import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.IVariableBinding;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SymbolTable {
+  public static final int UNRESOLVED = -1;
+  @Nonnull
+  public static final Symbol UNRESOLVED_SYMBOL = new Symbol(UNRESOLVED, Kind.UNRESOLVED, null, UNRESOLVED, UNRESOLVED, null, null);
+  private static final int PAGE_BITS = 12;
+  private static final int PAGE_SIZE = 1 << PAGE_BITS;
+  private static final int MAX_SYMBOLS = Integer.MAX_VALUE - PAGE_SIZE;
+  private static final String BINARY_NAME_PREFIX = "#binary:";
+  private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+  private final AtomicInteger nextId = new AtomicInteger();
+  @Nonnull
+  private volatile Symbol[][] pages = new Symbol[1][];
+
+  public int intern(@Nullable final IBinding binding) {
+    if (binding instanceof ITypeBinding) return internType((ITypeBinding) binding);
+    else if (binding instanceof IMethodBinding) return internMethod((IMethodBinding) binding);
+    else if (binding instanceof IVariableBinding) return internVariable((IVariableBinding) binding);
+    else return UNRESOLVED;
+  }
+
+  public int internType(@Nullable final ITypeBinding binding) {
+    if (null == binding) return UNRESOLVED;
+    String key = binding.getKey();
+    if (null == key) return UNRESOLVED;
+    Integer id = ids.get(key);
+    if (null != id) return id;
+    if (binding.isPrimitive()) {
+      return add(key, Kind.TYPE, binding.getName(), UNRESOLVED, UNRESOLVED, null);
+    } else if (binding.isArray()) {
+      return add(key, Kind.ARRAY, "[]", UNRESOLVED, internType(binding.getComponentType()), null);
+    } else {
+      return add(key, Kind.TYPE, binding.getBinaryName(), UNRESOLVED, UNRESOLVED, null);
+    }
+  }
+
+  public int internMethod(@Nullable final IMethodBinding binding) {
+    if (null == binding) return UNRESOLVED;
+    String key = binding.getKey();
+    if (null == key) return UNRESOLVED;
+    Integer id = ids.get(key);
+    if (null != id) return id;
+    ITypeBinding[] parameterTypes = binding.getParameterTypes();
+    int[] parameters = null;
+    if (null != parameterTypes) {
+      parameters = new int[parameterTypes.length];
+      for (int i = 0; i < parameterTypes.length; i++) {
+        parameters[i] = internType(parameterTypes[i]);
+      }
+    }
+    return add(key, Kind.METHOD, binding.getName(), internDeclaringType(binding.getDeclaringClass()), UNRESOLVED, parameters);
+  }
+
+  public int internVariable(@Nullable final IVariableBinding binding) {
+    if (null == binding) return UNRESOLVED;
+    ITypeBinding declaringClass = binding.getDeclaringClass();
+    if (null == declaringClass) return UNRESOLVED;
+    String key = binding.getKey();
+    if (null == key) return UNRESOLVED;
+    Integer id = ids.get(key);
+    if (null != id) return id;
+    return add(key, Kind.VARIABLE, binding.getName(), internDeclaringType(declaringClass), UNRESOLVED, null);
+  }
+
+  @Nonnull
+  public Symbol get(final int id) {
+    if (UNRESOLVED == id) return UNRESOLVED_SYMBOL;
+    if (id < 0 || id >= nextId.get()) throw new IllegalArgumentException("id: " + id);
+    Symbol[][] pages = this.pages;
+    int pageIndex = id >>> PAGE_BITS;
+    Symbol[] page = pageIndex < pages.length ? pages[pageIndex] : null;
+    Symbol symbol = null == page ? null : page[id & (PAGE_SIZE - 1)];
+    if (null == symbol) throw new IllegalStateException("id: " + id);
+    return symbol;
+  }
+
+  @Nonnull
+  public String getSignature(final int id) {
+    return get(id).getSignature();
+  }
+
+  public int size() {
+    return ids.size();
+  }
+
+  private int internDeclaringType(@Nullable final ITypeBinding binding) {
+    if (null == binding || !binding.isArray()) return internType(binding);
+    // Members of array types are named by the array's binary name (e.g. "[I"), not its element type
+    String key = binding.getKey();
+    if (null == key) return UNRESOLVED;
+    key = BINARY_NAME_PREFIX + key;
+    Integer id = ids.get(key);
+    if (null != id) return id;
+    return add(key, Kind.TYPE, binding.getBinaryName(), UNRESOLVED, UNRESOLVED, null);
+  }
+
+  private int add(@Nonnull final String key, @Nonnull final Kind kind, @Nullable final String name, final int declaringType, final int componentType, @Nullable final int[] parameters) {
+    if (ids.size() >= MAX_SYMBOLS) throw new IllegalStateException("Symbol table full");
+    return ids.computeIfAbsent(key, k -> {
+      int id = nextId.getAndIncrement();
+      getPage(id >>> PAGE_BITS)[id & (PAGE_SIZE - 1)] = new Symbol(id, kind, name, declaringType, componentType, parameters, this);
+      return id;
+    });
+  }
+
+  @Nonnull
+  private Symbol[] getPage(final int pageIndex) {
+    Symbol[][] pages = this.pages;
+    Symbol[] page = pageIndex < pages.length ? pages[pageIndex] : null;
+    if (null != page) return page;
+    synchronized (this) {
+      pages = this.pages;
+      if (pageIndex >= pages.length) {
+        pages = Arrays.copyOf(pages, Math.max(pages.length * 2, pageIndex + 1));
+      }
+      if (null == pages[pageIndex]) {
+        pages[pageIndex] = new Symbol[PAGE_SIZE];
+      }
+      this.pages = pages;
+      return pages[pageIndex];
+    }
+  }
+
+  public enum Kind {
+    UNRESOLVED,
+    TYPE,
+    ARRAY,
+    METHOD,
+    VARIABLE
+  }
+
+  public static class Symbol {
+    public final int id;
+    @Nonnull
+    public final Kind kind;
+    @Nullable
+    public final String name;
+    public final int declaringType;
+    public final int componentType;
+    @Nullable
+    private final int[] parameters;
+    @Nullable
+    private final SymbolTable table;
+    @Nullable
+    private volatile String signature;
+
+    private Symbol(final int id, @Nonnull final Kind kind, @Nullable final String name, final int declaringType, final int componentType, @Nullable final int[] parameters, @Nullable final SymbolTable table) {
+      this.id = id;
+      this.kind = kind;
+      this.name = name;
+      this.declaringType = declaringType;
+      this.componentType = componentType;
+      this.parameters = parameters;
+      this.table = table;
+    }
+
+    public int getParameterCount() {
+      return null == parameters ? 0 : parameters.length;
+    }
+
+    public int getParameter(final int index) {
+      if (null == parameters) throw new IndexOutOfBoundsException("index: " + index);
+      return parameters[index];
+    }
+
+    @Nonnull
+    public String getSignature() {
+      String signature = this.signature;
+      if (null == signature) {
+        signature = buildSignature();
+        this.signature = signature;
+      }
+      return signature;
+    }
+
+    @Nonnull
+    private String buildSignature() {
+      switch (kind) {
+        case UNRESOLVED:
+          return "???";
+        case TYPE:
+          return null == name ? "null" : name;
+        case ARRAY:
+          return typeSignature(componentType) + name;
+        case METHOD:
+          StringBuilder sb = new StringBuilder();
+          sb.append(table.get(declaringType).getSignature()).append("::").append(name).append('(');
+          if (null == parameters) {
+            sb.append("null");
+          } else {
+            for (int i = 0; i < parameters.length; i++) {
+              if (i > 0) sb.append(',');
+              sb.append(typeSignature(parameters[i]));
+            }
+          }
+          return sb.append(')').toString();
+        case VARIABLE:
+          return table.get(declaringType).getSignature() + "::" + name;
+        default:
+          throw new IllegalStateException(kind.toString());
+      }
+    }
+
+    @Nonnull
+    private String typeSignature(final int type) {
+      return UNRESOLVED == type ? "null" : table.get(type).getSignature();
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+      return getSignature();
+    }
+  }
+
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2019 by Andrew Charneski.
+ *
+ * The author licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.simiacryptus.devutil;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.artifact.repository.ArtifactRepositoryPolicy;
+import org.apache.maven.artifact.repository.MavenArtifactRepository;
+import org.apache.maven.artifact.repository.layout.DefaultRepositoryLayout;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.model.Model;
+import org.apache.maven.project.DependencyResolutionResult;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchAnalyzerTest {
+  private static final BiConsumer<String, HashMap<String, CompilationUnit>> NO_OP = (root, files) -> {
+  };
+  private StubAnalyzer analyzer;
+
+  @BeforeEach
+  public void setup() throws Exception {
+    analyzer = new StubAnalyzer();
+  }
+
+  @AfterEach
+  public void cleanup() {
+    analyzer.close();
+  }
+
+  @Test
+  public void readRoots(@TempDir final Path dir) throws Exception {
+    File list = dir.resolve("roots.txt").toFile();
+    FileUtils.writeLines(list, StandardCharsets.UTF_8.name(), Arrays.asList("# comment", "  /repo/b  ", "", "/repo/c"));
+    assertEquals(Arrays.asList("/repo/a", "/repo/b", "/repo/c", "/repo/d"),
+        BatchAnalyzer.readRoots(new String[]{"/repo/a", "@" + list.getAbsolutePath(), "/repo/d"}));
+  }
+
+  @Test
+  public void emptyRun() throws Exception {
+    assertEquals(Collections.emptyList(), analyzer.run(Collections.emptyList(), NO_OP).get(1, TimeUnit.MINUTES));
+  }
+
+  @Test
+  public void admissionLimit() throws Exception {
+    analyzer.setMaxInFlight(3);
+    List<String> roots = new ArrayList<>();
+    for (int i = 0; i < 10; i++) roots.add("root" + i);
+    CompletableFuture<List<String>> result = analyzer.run(roots, NO_OP);
+    assertEquals(Arrays.asList("root0", "root1", "root2"), analyzer.getStarted());
+    for (int i = 0; i < roots.size(); i++) {
+      assertTrue(analyzer.getInFlight() <= 3);
+      assertFalse(result.isDone());
+      analyzer.started.get(roots.get(i)).complete(null);
+    }
+    assertEquals(roots, analyzer.getStarted());
+    assertEquals(Collections.emptyList(), result.get(1, TimeUnit.MINUTES));
+  }
+
+  @Test
+  public void failedRoots() throws Exception {
+    analyzer.setMaxInFlight(2);
+    CompletableFuture<List<String>> result = analyzer.run(Arrays.asList("a", "throw-b", "c", "d"), NO_OP);
+    assertEquals(Arrays.asList("a", "c"), analyzer.getStarted());
+    analyzer.started.get("a").completeExceptionally(new RuntimeException("a"));
+    analyzer.started.get("c").complete(null);
+    analyzer.started.get("d").complete(null);
+    assertEquals(new HashSet<>(Arrays.asList("a", "throw-b")), new HashSet<>(result.get(1, TimeUnit.MINUTES)));
+  }
+
+  @Test
+  public void rejectedAfterClose() throws Exception {
+    BatchAnalyzer closed = new BatchAnalyzer(1, 64);
+    closed.close();
+    List<String> failed = closed.run(Arrays.asList("a", "b"), NO_OP).get(1, TimeUnit.MINUTES);
+    assertEquals(Arrays.asList("a", "b"), failed);
+  }
+
+  @Test
+  public void sharedResolution() throws Exception {
+    BatchAnalyzer.Batch batch = analyzer.new Batch(Collections.emptyList(), NO_OP);
+    AtomicInteger calls = new AtomicInteger();
+    DependencyResolutionResult resolution = newResolution();
+    CompletableFuture<DependencyResolutionResult> first = batch.resolve("x", () -> {
+      calls.incrementAndGet();
+      return resolution;
+    });
+    CompletableFuture<DependencyResolutionResult> second = batch.resolve("x", () -> {
+      calls.incrementAndGet();
+      return newResolution();
+    });
+    assertSame(resolution, first.get());
+    assertSame(first, second);
+    assertEquals(1, calls.get());
+    batch.resolve("y", () -> {
+      calls.incrementAndGet();
+      return newResolution();
+    });
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  public void failedResolutionIsRetried() throws Exception {
+    BatchAnalyzer.Batch batch = analyzer.new Batch(Collections.emptyList(), NO_OP);
+    CompletableFuture<DependencyResolutionResult> failed = batch.resolve("x", () -> {
+      throw new IllegalStateException("offline");
+    });
+    assertTrue(failed.isCompletedExceptionally());
+    DependencyResolutionResult resolution = newResolution();
+    assertSame(resolution, batch.resolve("x", () -> resolution).get());
+  }
+
+  @Test
+  public void resolutionKey() {
+    String key = BatchAnalyzer.getResolutionKey(newProject("1.0", "2.0", "https://repo.example/a"));
+    assertEquals(key, BatchAnalyzer.getResolutionKey(newProject("1.0", "2.0", "https://repo.example/a")));
+    assertTrue(key.startsWith("g:a:1.0-SNAPSHOT@"));
+    assertNotEquals(key, BatchAnalyzer.getResolutionKey(newProject("1.1", "2.0", "https://repo.example/a")));
+    assertNotEquals(key, BatchAnalyzer.getResolutionKey(newProject("1.0", "2.1", "https://repo.example/a")));
+    assertNotEquals(key, BatchAnalyzer.getResolutionKey(newProject("1.0", "2.0", "https://repo.example/b")));
+  }
+
+  @Test
+  public void analyzeProjects(@TempDir final Path dir) throws Exception {
+    List<String> roots = Arrays.asList(newSourceProject(dir.resolve("one").toFile()), newSourceProject(dir.resolve("two").toFile()));
+    BatchAnalyzer real = new BatchAnalyzer(2, 64);
+    try {
+      Map<String, Set<String>> results = new ConcurrentHashMap<>();
+      List<String> failed = real.run(roots, (root, files) -> {
+        results.put(root, new TreeSet<>(files.keySet()));
+        files.values().forEach(ast -> assertEquals(0, ast.getProblems().length, Arrays.toString(ast.getProblems())));
+      }).get(5, TimeUnit.MINUTES);
+      assertEquals(Collections.emptyList(), failed);
+      assertEquals(new HashSet<>(roots), results.keySet());
+      for (final String root : roots) {
+        assertEquals(Collections.singleton(new File(root, "src/main/java/a/B.java").getAbsolutePath()), results.get(root));
+      }
+      assertEquals(real.memoryBudget.capacityMB, real.memoryBudget.getAvailableMB());
+    } finally {
+      real.close();
+    }
+  }
+
+  @Nonnull
+  private static String newSourceProject(@Nonnull final File root) throws Exception {
+    FileUtils.writeStringToFile(new File(root, "pom.xml"), String.join("\n",
+        "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">",
+        "  <modelVersion>4.0.0</modelVersion>",
+        "  <groupId>g</groupId>",
+        "  <artifactId>a</artifactId>",
+        "  <version>1.0-SNAPSHOT</version>",
+        "</project>"), StandardCharsets.UTF_8);
+    FileUtils.writeStringToFile(new File(root, "src/main/java/a/B.java"),
+        "package a;\npublic class B { int x; void f() { x = 1; } }\n", StandardCharsets.UTF_8);
+    FileUtils.forceMkdir(new File(root, "src/test/java"));
+    return root.getAbsolutePath();
+  }
+
+  @Nonnull
+  private static MavenProject newProject(final String dependencyVersion, final String managedVersion, final String repositoryUrl) {
+    Model model = new Model();
+    model.setGroupId("g");
+    model.setArtifactId("a");
+    model.setVersion("1.0-SNAPSHOT");
+    model.addDependency(newDependency("commons-io", dependencyVersion));
+    DependencyManagement dependencyManagement = new DependencyManagement();
+    dependencyManagement.addDependency(newDependency("commons-lang", managedVersion));
+    model.setDependencyManagement(dependencyManagement);
+    MavenProject project = new MavenProject(model);
+    ArtifactRepositoryPolicy policy = new ArtifactRepositoryPolicy();
+    project.setRemoteArtifactRepositories(Collections.singletonList(
+        new MavenArtifactRepository("central", repositoryUrl, new DefaultRepositoryLayout(), policy, policy)));
+    return project;
+  }
+
+  @Nonnull
+  private static Dependency newDependency(final String artifactId, final String version) {
+    Dependency dependency = new Dependency();
+    dependency.setGroupId(artifactId);
+    dependency.setArtifactId(artifactId);
+    dependency.setVersion(version);
+    return dependency;
+  }
+
+  @Nonnull
+  private static DependencyResolutionResult newResolution() {
+    return (DependencyResolutionResult) Proxy.newProxyInstance(BatchAnalyzerTest.class.getClassLoader(),
+        new Class[]{DependencyResolutionResult.class}, (proxy, method, args) -> {
+          if (method.getName().equals("equals")) return proxy == args[0];
+          if (method.getName().equals("hashCode")) return System.identityHashCode(proxy);
+          return null;
+        });
+  }
+
+  private static class StubAnalyzer extends BatchAnalyzer {
+    final Map<String, CompletableFuture<Void>> started = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    StubAnalyzer() throws Exception {
+      super(1, 64);
+    }
+
+    @Nonnull
+    @Override
+    protected CompletableFuture<Void> analyze(@Nonnull final Batch batch, final String root) {
+      if (root.startsWith("throw")) throw new IllegalStateException(root);
+      CompletableFuture<Void> future = new CompletableFuture<>();
+      started.put(root, future);
+      return future;
+    }
+
+    @Nonnull
+    List<String> getStarted() {
+      synchronized (started) {
+        return new ArrayList<>(started.keySet());
+      }
+    }
+
+    long getInFlight() {
+      synchronized (started) {
+        return started.values().stream().filter(x -> !x.isDone()).count();
+      }
+    }
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2019 by Andrew Charneski.
+ *
+ * The author licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.simiacryptus.devutil;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MemoryBudgetTest {
+
+  @Test
+  public void reservationsAreGrantedInOrder() {
+    MemoryBudget budget = new MemoryBudget(10);
+    CompletableFuture<Void> a = budget.reserve(6);
+    CompletableFuture<Void> b = budget.reserve(10);
+    CompletableFuture<Void> c = budget.reserve(1);
+    assertTrue(a.isDone());
+    assertFalse(b.isDone());
+    assertFalse(c.isDone(), "later reservations queue behind earlier ones");
+    assertEquals(2, budget.getWaiting());
+    budget.release(6);
+    assertTrue(b.isDone());
+    assertFalse(c.isDone());
+    budget.release(10);
+    assertTrue(c.isDone());
+    assertEquals(9, budget.getAvailableMB());
+    budget.release(1);
+    assertEquals(10, budget.getAvailableMB());
+  }
+
+  @Test
+  public void invalidAmounts() {
+    MemoryBudget budget = new MemoryBudget(10);
+    assertThrows(IllegalArgumentException.class, () -> budget.reserve(0));
+    assertThrows(IllegalArgumentException.class, () -> budget.reserve(11));
+    assertThrows(IllegalStateException.class, () -> budget.release(1));
+    assertThrows(IllegalArgumentException.class, () -> new MemoryBudget(0));
+  }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2019 by Andrew Charneski.
+ *
+ * The author licenses this file to you under the
+ * Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance
+ * with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.simiacryptus.devutil;
+
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.*;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SymbolTableTest {
+  private static final String SOURCE = String.join("\n",
+      "package a;",
+      "import java.util.List;",
+      "public class Sample<T> extends Base {",
+      "  static int[] values = new int[4];",
+      "  String[][] names;",
+      "  int count;",
+      "  Sample(int count) { super(count); this.count = count; }",
+      "  Sample() { this(0); }",
+      "  void put(int index, String[][] grid, T item) { }",
+      "  void fill(String[] row) { }",
+      "  void fill(String[][] rows) { }",
+      "  <U extends Number> void run(T item, U number, int[][] grid, List<String> list, Missing missing, String... rest) {",
+      "    int local = count + values.length;",
+      "    Object copy = values.clone();",
+      "    names = null;",
+      "    put(local, names, item);",
+      "    run(item, number, grid, list, missing, rest);",
+      "    new Sample<String>(local);",
+      "  }",
+      "}",
+      "class Base { Base(int x) { } }",
+      "");
+  private static final List<IBinding> bindings = new ArrayList<>();
+
+  @BeforeAll
+  public static void parse() {
+    ASTParser parser = ASTParser.newParser(AST.JLS9);
+    parser.setKind(ASTParser.K_COMPILATION_UNIT);
+    parser.setResolveBindings(true);
+    parser.setBindingsRecovery(true);
+    parser.setEnvironment(new String[]{}, new String[]{}, null, true);
+    parser.setUnitName("Sample.java");
+    Map<String, String> options = JavaCore.getOptions();
+    JavaCore.setComplianceOptions(JavaCore.VERSION_1_8, options);
+    parser.setCompilerOptions(options);
+    parser.setSource(SOURCE.toCharArray());
+    CompilationUnit ast = (CompilationUnit) parser.createAST(null);
+    ast.accept(new ASTVisitor() {
+      @Override
+      public boolean visit(@Nonnull final SimpleName node) {
+        IBinding binding = node.resolveBinding();
+        if (null != binding) bindings.add(binding);
+        return super.visit(node);
+      }
+
+      @Override
+      public boolean visit(@Nonnull final ConstructorInvocation node) {
+        bindings.add(node.resolveConstructorBinding());
+        return super.visit(node);
+      }
+
+      @Override
+      public boolean visit(@Nonnull final SuperConstructorInvocation node) {
+        bindings.add(node.resolveConstructorBinding());
+        return super.visit(node);
+      }
+
+      @Override
+      public boolean visit(@Nonnull final ClassInstanceCreation node) {
+        bindings.add(node.resolveConstructorBinding());
+        return super.visit(node);
+      }
+    });
+  }
+
+  @Test
+  public void signaturesMatchLegacyFormat() {
+    SymbolTable symbols = new SymbolTable();
+    for (final IBinding binding : bindings) {
+      int id = symbols.intern(binding);
+      if (binding instanceof IMethodBinding) {
+        assertEquals(toStringMethod((IMethodBinding) binding), symbols.getSignature(id), binding.getKey());
+      } else if (binding instanceof IVariableBinding) {
+        String expected = toStringVar((IVariableBinding) binding);
+        if (null == expected) assertEquals(SymbolTable.UNRESOLVED, id, binding.getKey());
+        else assertEquals(expected, symbols.getSignature(id), binding.getKey());
+      } else if (binding instanceof ITypeBinding) {
+        String expected = toStringType((ITypeBinding) binding);
+        assertEquals(null == expected ? "null" : expected, symbols.getSignature(id), binding.getKey());
+      }
+    }
+  }
+
+  @Test
+  public void signatures() {
+    SymbolTable symbols = new SymbolTable();
+    assertEquals("a.Sample::put(int,java.lang.String[][],a.Sample$T)", symbols.getSignature(symbols.intern(find("put"))));
+    assertEquals("a.Base::Base(int)", symbols.getSignature(symbols.intern(find(SuperConstructorInvocation.class))));
+    assertEquals("a.Sample::Sample(int)", symbols.getSignature(symbols.intern(find(ConstructorInvocation.class))));
+    assertEquals("a.Sample::count", symbols.getSignature(symbols.intern(find("count"))));
+    assertEquals("a.Sample::names", symbols.getSignature(symbols.intern(find("names"))));
+    assertEquals("java.lang.Object::clone()", symbols.getSignature(symbols.intern(find("clone"))));
+    assertEquals("a.Sample$T", symbols.getSignature(symbols.intern(find("T"))));
+    assertEquals("int", symbols.getSignature(symbols.intern(((IVariableBinding) find("local")).getType())));
+    assertEquals("int[]", symbols.getSignature(symbols.intern(((IVariableBinding) find("values")).getType())));
+    assertEquals("java.lang.String[][]", symbols.getSignature(symbols.intern(((IVariableBinding) find("names")).getType())));
+    assertEquals("int[][]", symbols.getSignature(symbols.intern(((IVariableBinding) find("grid", 1)).getType())));
+    assertEquals("null", symbols.getSignature(symbols.intern(find("Missing"))));
+  }
+
+  @Test
+  public void arrayDimensions() {
+    SymbolTable symbols = new SymbolTable();
+    int row = symbols.intern(find("fill", 0));
+    int rows = symbols.intern(find("fill", 1));
+    assertNotEquals(row, rows);
+    assertEquals("a.Sample::fill(java.lang.String[])", symbols.getSignature(row));
+    assertEquals("a.Sample::fill(java.lang.String[][])", symbols.getSignature(rows));
+    SymbolTable.Symbol array = symbols.get(symbols.get(rows).getParameter(0));
+    assertEquals(SymbolTable.Kind.ARRAY, array.kind);
+    assertEquals(symbols.get(row).getParameter(0), array.componentType);
+  }
+
+  @Test
+  public void unresolved() {
+    SymbolTable symbols = new SymbolTable();
+    assertEquals(SymbolTable.UNRESOLVED, symbols.internMethod(null));
+    assertEquals(SymbolTable.UNRESOLVED, symbols.internType(null));
+    assertEquals(SymbolTable.UNRESOLVED, symbols.internVariable(null));
+    assertEquals(SymbolTable.UNRESOLVED, symbols.intern(find("local")));
+    assertEquals(SymbolTable.UNRESOLVED, symbols.intern(find("length")));
+    SymbolTable.Symbol symbol = symbols.get(SymbolTable.UNRESOLVED);
+    assertSame(SymbolTable.UNRESOLVED_SYMBOL, symbol);
+    assertEquals(SymbolTable.Kind.UNRESOLVED, symbol.kind);
+    assertEquals("???", symbol.getSignature());
+    assertEquals(0, symbols.size());
+  }
+
+  @Test
+  public void lazySignatures() {
+    SymbolTable symbols = new SymbolTable();
+    SymbolTable.Symbol method = symbols.get(symbols.intern(find("put")));
+    assertEquals(SymbolTable.Kind.METHOD, method.kind);
+    assertEquals(3, method.getParameterCount());
+    SymbolTable.Symbol declaringType = symbols.get(method.declaringType);
+    SymbolTable.Symbol grid = symbols.get(method.getParameter(1));
+    assertEquals(SymbolTable.Kind.ARRAY, grid.kind);
+    String gridSignature = grid.getSignature();
+    assertEquals("java.lang.String[][]", gridSignature);
+    assertSame(gridSignature, grid.getSignature());
+    String signature = method.getSignature();
+    assertEquals("a.Sample::put(int,java.lang.String[][],a.Sample$T)", signature);
+    assertSame(signature, method.getSignature());
+    assertSame(signature, symbols.getSignature(symbols.intern(find("put"))));
+    assertSame(declaringType.getSignature(), symbols.get(method.declaringType).getSignature());
+  }
+
+  @Test
+  public void concurrentInterning() throws Exception {
+    SymbolTable symbols = new SymbolTable();
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    try {
+      List<Future<Map<String, Integer>>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        List<IBinding> shuffled = new ArrayList<>(bindings);
+        Collections.shuffle(shuffled, new Random(i));
+        futures.add(executor.submit(() -> {
+          start.await();
+          Map<String, Integer> ids = new HashMap<>();
+          for (final IBinding binding : shuffled) {
+            ids.put(binding.getKey(), symbols.intern(binding));
+          }
+          return ids;
+        }));
+      }
+      start.countDown();
+      Map<String, Integer> expected = futures.get(0).get(1, TimeUnit.MINUTES);
+      for (final Future<Map<String, Integer>> future : futures) {
+        assertEquals(expected, future.get(1, TimeUnit.MINUTES));
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertTrue(symbols.size() > 0);
+    for (int id = 0; id < symbols.size(); id++) {
+      assertEquals(id, symbols.get(id).id);
+    }
+    int size = symbols.size();
+    assertThrows(IllegalArgumentException.class, () -> symbols.get(size));
+  }
+
+  @Nonnull
+  private static IBinding find(@Nonnull final String name) {
+    return find(name, 0);
+  }
+
+  @Nonnull
+  private static IBinding find(@Nonnull final String name, final int index) {
+    return bindings.stream().filter(x -> name.equals(x.getName())).map(IBinding::getKey).distinct().skip(index).findFirst()
+        .flatMap(key -> bindings.stream().filter(x -> key.equals(x.getKey())).findFirst())
+        .orElseThrow(() -> new AssertionError(name + "#" + index));
+  }
+
+  @Nonnull
+  private static IMethodBinding find(@Nonnull final Class<? extends ASTNode> invocation) {
+    return bindings.stream().filter(x -> x instanceof IMethodBinding).map(x -> (IMethodBinding) x)
+        .filter(x -> x.isConstructor() && x.getParameterTypes().length == 1)
+        .filter(x -> x.getDeclaringClass().getName().equals(SuperConstructorInvocation.class == invocation ? "Base" : "Sample"))
+        .findFirst().orElseThrow(() -> new AssertionError(invocation.getSimpleName()));
+  }
+
+  private static String toStringMethod(@Nullable final IMethodBinding methodBinding) {
+    final String symbolStr;
+    if (null != methodBinding) {
+      ITypeBinding[] parameterTypes = methodBinding.getParameterTypes();
+      String params = null == parameterTypes ? "null" : Arrays.stream(parameterTypes).map(x -> toStringType(x)).map(x -> null == x ? "null" : x).reduce((a, b) -> a + "," + b).orElse("");
+      String name = methodBinding.getDeclaringClass().getBinaryName() + "::" + methodBinding.getName();
+      symbolStr = String.format("%s(%s)", name, params);
+    } else {
+      symbolStr = "???";
+    }
+    return symbolStr;
+  }
+
+  // Legacy format, except that arrays keep every dimension (the original used getElementType() with a single "[]")
+  private static String toStringType(@Nullable final ITypeBinding x) {
+    if (null == x) return "null";
+    else if (x.isPrimitive()) return x.getName();
+    else if (x.isArray()) return toStringType(x.getComponentType()) + "[]";
+    else return x.getBinaryName();
+  }
+
+  @Nullable
+  private static String toStringVar(@Nullable final IVariableBinding iVariableBinding) {
+    if (null == iVariableBinding) return null;
+    ITypeBinding declaringClass = iVariableBinding.getDeclaringClass();
+    if (null == declaringClass) return null;
+    return declaringClass.getBinaryName() + "::" + iVariableBinding.getName();
+  }
+}